@@ -1,8 +1,10 @@
 package com.example.demo.controller;
 
 import com.example.demo.service.engine.Record;
+import com.example.demo.service.engine.TableLoadException;
 import com.example.demo.service.service.BDService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -92,4 +94,25 @@ public class RestController {
 		return ResponseEntity.ok(results);
 	}
 
+	@GetMapping("/join")
+	public ResponseEntity<?> join(@RequestParam("left") String left, @RequestParam("leftField") String leftField,
+			@RequestParam("right") String right, @RequestParam("rightField") String rightField,
+			@RequestParam(value = "limit", defaultValue = "1000") int limit) {
+		if (leftField.isBlank() || rightField.isBlank()) {
+			return ResponseEntity.badRequest().body(Map.of("error", "leftField and rightField required"));
+		}
+		if (limit <= 0) {
+			return ResponseEntity.badRequest().body(Map.of("error", "limit must be positive"));
+		}
+		Map<String, Object> result = bdService.join(left, leftField, right, rightField, limit);
+		if (result == null) return ResponseEntity.notFound().build();
+		return ResponseEntity.ok(result);
+	}
+
+	// Tabla existente pero ilegible: no es un 404, el archivo está dañado
+	@ExceptionHandler(TableLoadException.class)
+	public ResponseEntity<?> tableLoadError(TableLoadException e) {
+		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", e.getMessage()));
+	}
+
 }
@@ -2,8 +2,12 @@ package com.example.demo.service.engine;
 
 import java.io.Serializable;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 public class AVLTree<K extends Comparable<K>, V> implements Serializable {
     private AVLNode<K, V> root;
@@ -180,4 +184,35 @@ public class AVLTree<K extends Comparable<K>, V> implements Serializable {
             inOrderRec(node.right, results);
         }
     }
+
+    // Recorrido en orden perezoso, sin copiar todos los valores a una lista
+    public Iterator<V> iterator() {
+        return new Iterator<V>() {
+            private final Deque<AVLNode<K, V>> stack = new ArrayDeque<>();
+
+            {
+                pushLeft(root);
+            }
+
+            private void pushLeft(AVLNode<K, V> node) {
+                while (node != null) {
+                    stack.push(node);
+                    node = node.left;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public V next() {
+                if (stack.isEmpty()) throw new NoSuchElementException();
+                AVLNode<K, V> node = stack.pop();
+                pushLeft(node.right);
+                return node.value;
+            }
+        };
+    }
 }
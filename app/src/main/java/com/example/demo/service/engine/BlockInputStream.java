@@ -0,0 +1,105 @@
+package com.example.demo.service.engine;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Lee los bloques escritos por BlockOutputStream y verifica el crc32 de cada uno.
+// Los tamaños de la cabecera se validan antes de leer nada, para que una
+// cabecera dañada no haga reservar memoria de más.
+class BlockInputStream extends InputStream {
+    private final DataInputStream in;
+    private final Inflater inflater = new Inflater();
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[BlockOutputStream.BLOCK_SIZE];
+    private final byte[] compressed = new byte[BlockOutputStream.BLOCK_SIZE];
+    private int pos;
+    private int limit;
+    private int blockNumber;
+    private boolean eof;
+
+    BlockInputStream(InputStream in) {
+        this.in = new DataInputStream(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pos == limit && !nextBlock()) return -1;
+        return buffer[pos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (pos == limit && !nextBlock()) return -1;
+        int n = Math.min(len, limit - pos);
+        System.arraycopy(buffer, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    private boolean nextBlock() throws IOException {
+        if (eof) return false;
+        int type = in.read();
+        if (type == -1) {
+            eof = true;
+            return false;
+        }
+        blockNumber++;
+
+        int rawLength = in.readInt();
+        int storedLength = in.readInt();
+        int expectedCrc = in.readInt();
+        if (rawLength < 0 || rawLength > BlockOutputStream.BLOCK_SIZE) {
+            throw new IOException("Cabecera inválida en el bloque " + blockNumber);
+        }
+
+        if (type == BlockOutputStream.STORED) {
+            if (storedLength != rawLength) {
+                throw new IOException("Cabecera inválida en el bloque " + blockNumber);
+            }
+            in.readFully(buffer, 0, rawLength);
+        } else if (type == BlockOutputStream.DEFLATED) {
+            // Comprimido solo si ganaba espacio: nunca ocupa más que el original
+            if (storedLength < 0 || storedLength >= rawLength) {
+                throw new IOException("Cabecera inválida en el bloque " + blockNumber);
+            }
+            in.readFully(compressed, 0, storedLength);
+            inflater.reset();
+            inflater.setInput(compressed, 0, storedLength);
+            try {
+                int n = 0;
+                while (n < rawLength && !inflater.finished()) {
+                    int r = inflater.inflate(buffer, n, rawLength - n);
+                    if (r == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                    n += r;
+                }
+                if (n != rawLength) throw new EOFException("Bloque " + blockNumber + " incompleto");
+            } catch (DataFormatException e) {
+                throw new IOException("Bloque " + blockNumber + " corrupto: " + e.getMessage());
+            }
+        } else {
+            throw new IOException("Tipo de bloque desconocido: " + type);
+        }
+
+        BlockOutputStream.headerCrc(crc, type, rawLength, storedLength);
+        crc.update(buffer, 0, rawLength);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Checksum incorrecto en el bloque " + blockNumber);
+        }
+
+        pos = 0;
+        limit = rawLength;
+        return rawLength > 0 || nextBlock();
+    }
+
+    // El stream de origen es del llamador y no se cierra
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+    }
+}
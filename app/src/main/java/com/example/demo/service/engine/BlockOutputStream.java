@@ -0,0 +1,111 @@
+package com.example.demo.service.engine;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Agrupa lo escrito en bloques de BLOCK_SIZE bytes y guarda cada bloque
+// comprimido con Deflater. Cabecera de cada bloque:
+//   byte tipo (STORED/DEFLATED), int tamaño original, int tamaño guardado, int crc32
+// El crc32 cubre el tipo, los dos tamaños y los datos originales. Un bloque solo
+// se guarda comprimido si ocupa menos que el original, así que el tamaño
+// guardado nunca pasa de BLOCK_SIZE.
+// No cierra el stream de destino: close() solo escribe el último bloque.
+class BlockOutputStream extends OutputStream {
+    static final int BLOCK_SIZE = 64 * 1024;
+    static final byte STORED = 0;
+    static final byte DEFLATED = 1;
+
+    private final DataOutputStream out;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[BLOCK_SIZE];
+    private byte[] compressed = new byte[BLOCK_SIZE + BLOCK_SIZE / 8 + 64];
+    private int count;
+    private boolean closed;
+
+    BlockOutputStream(OutputStream out, int level) {
+        this.out = new DataOutputStream(out);
+        this.deflater = new Deflater(level);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (count == BLOCK_SIZE) flushBlock();
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (count == BLOCK_SIZE) flushBlock();
+            int n = Math.min(len, BLOCK_SIZE - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (count == 0) return;
+
+        deflater.reset();
+        deflater.setInput(buffer, 0, count);
+        deflater.finish();
+        int size = 0;
+        while (!deflater.finished()) {
+            if (size == compressed.length) {
+                byte[] bigger = new byte[compressed.length * 2];
+                System.arraycopy(compressed, 0, bigger, 0, size);
+                compressed = bigger;
+            }
+            size += deflater.deflate(compressed, size, compressed.length - size);
+        }
+
+        // Si no se gana espacio se guarda tal cual
+        boolean deflated = size < count;
+        byte type = deflated ? DEFLATED : STORED;
+        int storedLength = deflated ? size : count;
+        headerCrc(crc, type, count, storedLength);
+        crc.update(buffer, 0, count);
+
+        out.writeByte(type);
+        out.writeInt(count);
+        out.writeInt(storedLength);
+        out.writeInt((int) crc.getValue());
+        out.write(deflated ? compressed : buffer, 0, deflated ? size : count);
+        count = 0;
+    }
+
+    // Reinicia el crc con los campos de la cabecera; después se añaden los datos
+    static void headerCrc(CRC32 crc, int type, int rawLength, int storedLength) {
+        crc.reset();
+        crc.update(type);
+        for (int value : new int[] {rawLength, storedLength}) {
+            crc.update(value >>> 24);
+            crc.update(value >>> 16);
+            crc.update(value >>> 8);
+            crc.update(value);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBlock();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            flush();
+        } finally {
+            deflater.end();
+        }
+    }
+}
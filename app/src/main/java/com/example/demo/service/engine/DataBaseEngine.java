@@ -1,73 +1,246 @@
 package com.example.demo.service.engine;
 import java.io.*;
-import java.util.HashMap;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
 
 
+// El catálogo (nombres de tablas) se guarda en dbPath y cada tabla en su propio
+// archivo dentro de dbPath + ".tables". Las tablas se cargan bajo demanda en
+// getTable y solo las modificadas se escriben en save().
 public class DataBaseEngine {
+    private static final int DEFAULT_MAX_LOADED_TABLES = 32;
+    // Fracción mínima de heap libre antes de descargar tablas frías
+    private static final double MIN_FREE_HEAP_RATIO = 0.2;
+
+    private Set<String> catalog;
+    // Tablas en memoria, en orden de acceso (la primera es la más fría)
     private Map<String, Table> tables;
+    private boolean catalogDirty;
+    // Tablas borradas cuyo archivo se elimina después de escribir el catálogo
+    private Set<String> pendingDeletes;
+    private int maxLoadedTables;
     private String dbPath;
+    private File tablesDir;
+    private final TableCodec codec = new TableCodec();
 
     public DataBaseEngine(String dbPath) {
-        this.tables = new HashMap<>();
+        this.catalog = new LinkedHashSet<>();
+        this.tables = new LinkedHashMap<>(16, 0.75f, true);
+        this.catalogDirty = false;
+        this.pendingDeletes = new HashSet<>();
+        this.maxLoadedTables = DEFAULT_MAX_LOADED_TABLES;
         this.dbPath = dbPath;
+        this.tablesDir = new File(dbPath + ".tables");
     }
 
-    public void createTable(String tableName) {
-        if (!tables.containsKey(tableName)) {
+    public synchronized void createTable(String tableName) {
+        if (!catalog.contains(tableName)) {
+            catalog.add(tableName);
+            catalogDirty = true;
+            pendingDeletes.remove(tableName);
             tables.put(tableName, new Table(tableName));
+            evictColdTables();
             System.out.println("Tabla '" + tableName + "' creada exitosamente.");
         } else {
             System.out.println("La tabla '" + tableName + "' ya existe.");
         }
     }
 
-    public Table getTable(String tableName) {
-        return tables.get(tableName);
+    // Lanza TableLoadException si la tabla existe pero su archivo no se puede leer
+    public synchronized Table getTable(String tableName) {
+        if (!catalog.contains(tableName)) return null;
+
+        Table table = tables.get(tableName);
+        if (table == null) {
+            table = loadTable(tableName);
+            tables.put(tableName, table);
+            evictColdTables();
+        }
+        return table;
     }
 
-    public void dropTable(String tableName) {
-        if (tables.remove(tableName) != null) {
+    public synchronized void dropTable(String tableName) {
+        if (catalog.remove(tableName)) {
+            tables.remove(tableName);
+            catalogDirty = true;
+            pendingDeletes.add(tableName);
             System.out.println("Tabla '" + tableName + "' eliminada.");
         } else {
             System.out.println("Tabla '" + tableName + "' no existe.");
         }
     }
 
-    public void save() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(dbPath))) {
-            oos.writeObject(this);
-            System.out.println("Base de datos guardada en: " + dbPath);
+    // Checkpoint: escribe el catálogo si cambió y solo las tablas modificadas
+    public synchronized void save() {
+        try {
+            if (!tablesDir.exists() && !tablesDir.mkdirs()) {
+                throw new IOException("no se pudo crear " + tablesDir.getPath());
+            }
+            int flushed = 0;
+            for (Table table : tables.values()) {
+                if (table.isDirty()) {
+                    saveTable(table);
+                    flushed++;
+                }
+            }
+            if (catalogDirty) {
+                List<String> names = new ArrayList<>(catalog);
+                writeAtomically(new File(dbPath), os -> codec.writeCatalog(names, os));
+                catalogDirty = false;
+            }
+            // Solo ahora que el catálogo ya no las nombra se borran sus archivos
+            for (String tableName : pendingDeletes) {
+                File file = tableFile(tableName);
+                if (file.exists() && !file.delete()) {
+                    System.err.println("No se pudo borrar el archivo de la tabla: " + file.getPath());
+                }
+            }
+            pendingDeletes.clear();
+            System.out.println("Base de datos guardada en: " + dbPath + " (" + flushed + " tablas escritas)");
         } catch (IOException e) {
             System.err.println("Error al guardar: " + e.getMessage());
         }
     }
 
+    // Solo lee el catálogo; los datos de cada tabla se leen en el primer getTable.
+    // Si el catálogo existe pero no se puede leer se falla: empezar con uno vacío
+    // lo sobrescribiría en el próximo save() y dejaría huérfanas todas las tablas.
     public static DataBaseEngine load(String dbPath) {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(dbPath))) {
-            System.out.println("Base de datos cargada desde: " + dbPath);
-            return (DataBaseEngine) ois.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+        DataBaseEngine engine = new DataBaseEngine(dbPath);
+        if (!new File(dbPath).exists()) {
             System.out.println("Creando nueva base de datos...");
-            return new DataBaseEngine(dbPath);
+            return engine;
+        }
+        try (InputStream is = new BufferedInputStream(new FileInputStream(dbPath))) {
+            engine.catalog.addAll(engine.codec.readCatalog(is));
+            System.out.println("Base de datos cargada desde: " + dbPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el catálogo " + dbPath + ": " + e, e);
         }
+        return engine;
+    }
+
+    public synchronized void setMaxLoadedTables(int maxLoadedTables) {
+        this.maxLoadedTables = Math.max(1, maxLoadedTables);
+        evictColdTables();
+    }
+
+    public synchronized boolean isLoaded(String tableName) {
+        return tables.containsKey(tableName);
     }
 
     public void showTables() {
-        if (tables.isEmpty()) {
+        List<String> names = getTableNames();
+        if (names.isEmpty()) {
             System.out.println("No hay tablas en la base de datos.");
         } else {
             System.out.println("Tablas:");
-            for (String tableName : tables.keySet()) {
+            for (String tableName : names) {
                 System.out.println("  - " + tableName);
             }
         }
     }
 
     // Nuevo: devolver nombres de tablas (API)
-    public List<String> getTableNames() {
-        return new ArrayList<>(tables.keySet());
+    public synchronized List<String> getTableNames() {
+        return new ArrayList<>(catalog);
+    }
+
+    // Descarga tablas frías si hay demasiadas en memoria. Con poco heap libre
+    // se descarga además la más fría. La más reciente siempre queda cargada.
+    private void evictColdTables() {
+        int target = maxLoadedTables;
+        if (lowOnMemory()) target = Math.min(target, tables.size() - 1);
+        Iterator<Table> it = tables.values().iterator();
+        while (tables.size() > Math.max(1, target) && it.hasNext()) {
+            if (unload(it.next())) it.remove();
+            else break;
+        }
+    }
+
+    private boolean lowOnMemory() {
+        Runtime rt = Runtime.getRuntime();
+        long free = rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+        return free < rt.maxMemory() * MIN_FREE_HEAP_RATIO;
+    }
+
+    // Devuelve false si la tabla no pudo escribirse y debe seguir en memoria
+    private boolean unload(Table table) {
+        if (!table.isDirty()) return true;
+        try {
+            if (!tablesDir.exists() && !tablesDir.mkdirs()) {
+                throw new IOException("no se pudo crear " + tablesDir.getPath());
+            }
+            saveTable(table);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error al descargar la tabla '" + table.getName() + "': " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void saveTable(Table table) throws IOException {
+        writeAtomically(tableFile(table.getName()), os -> codec.writeTable(table, os));
+        table.markClean();
+    }
+
+    private Table loadTable(String tableName) {
+        File file = tableFile(tableName);
+        if (!file.exists()) {
+            // En el catálogo pero nunca escrita: tabla vacía
+            return new Table(tableName);
+        }
+        try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+            Table table = codec.readTable(is);
+            System.out.println("Tabla '" + tableName + "' cargada desde: " + file.getPath());
+            return table;
+        } catch (IOException e) {
+            System.err.println("Error al cargar la tabla '" + tableName + "': " + e);
+            throw new TableLoadException(tableName, e);
+        }
+    }
+
+    private File tableFile(String tableName) {
+        return new File(tablesDir, URLEncoder.encode(tableName, StandardCharsets.UTF_8) + ".tbl");
+    }
+
+    // Escribe en un temporal, lo sincroniza a disco y lo renombra, para que
+    // tras una caída quede el archivo anterior o el nuevo completo
+    private static void writeAtomically(File target, StreamWriter writer) throws IOException {
+        File tmp = new File(target.getPath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            OutputStream os = new BufferedOutputStream(fos);
+            writer.write(os);
+            os.flush();
+            fos.getChannel().force(true);
+        }
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(target.getAbsoluteFile().getParentFile());
+    }
+
+    // Hace persistente el rename. Algunos sistemas (Windows) no permiten abrir
+    // un directorio; ahí no hay nada más que hacer.
+    private static void syncDirectory(File dir) {
+        try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // sin soporte para sincronizar directorios
+        }
+    }
+
+    private interface StreamWriter {
+        void write(OutputStream os) throws IOException;
     }
 }
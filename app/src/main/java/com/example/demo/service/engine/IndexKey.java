@@ -0,0 +1,71 @@
+package com.example.demo.service.engine;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+// Clave de los índices secundarios y del hash join. Los números se comparan
+// por valor sin importar su tipo (5, 5L y 5.0 son la misma clave), así que se
+// pasan a BigDecimal sin ceros finales. Valores de clases distintas (texto y
+// números, por ejemplo) se ordenan primero por clase, de modo que conviven en
+// el mismo índice y nunca son iguales entre sí.
+final class IndexKey implements Comparable<IndexKey>, Serializable {
+    @SuppressWarnings("rawtypes")
+    private final Comparable value;
+
+    @SuppressWarnings("rawtypes")
+    private IndexKey(Comparable value) {
+        this.value = value;
+    }
+
+    // Devuelve null si el valor no es indexable (null, NaN, listas, mapas...)
+    @SuppressWarnings("rawtypes")
+    static IndexKey of(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return new IndexKey(BigDecimal.valueOf(((Number) value).longValue()).stripTrailingZeros());
+        }
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) return null;
+            return new IndexKey(BigDecimal.valueOf(d).stripTrailingZeros());
+        }
+        if (value instanceof BigInteger) {
+            return new IndexKey(new BigDecimal((BigInteger) value).stripTrailingZeros());
+        }
+        if (value instanceof BigDecimal) {
+            return new IndexKey(((BigDecimal) value).stripTrailingZeros());
+        }
+        if (value instanceof Comparable) {
+            return new IndexKey((Comparable) value);
+        }
+        return null;
+    }
+
+    Object value() {
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int compareTo(IndexKey other) {
+        Class<?> a = value.getClass();
+        Class<?> b = other.value.getClass();
+        if (a != b) return a.getName().compareTo(b.getName());
+        return value.compareTo(other.value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof IndexKey && compareTo((IndexKey) o) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demo.service.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// Join por igualdad entre dos tablas (left.leftField = right.rightField).
+// Los resultados se producen de forma perezosa: cada registro combinado
+// tiene los campos de ambas tablas con el nombre de la tabla como prefijo.
+public class JoinOperator implements Iterable<Record> {
+
+    public enum Strategy {
+        // Recorre una tabla y busca cada valor en el índice de la otra
+        INDEX_NESTED_LOOP,
+        // Construye una tabla hash con la tabla menor y recorre la mayor
+        HASH_JOIN
+    }
+
+    // Coste relativo de insertar una fila en la tabla hash frente a sondearla
+    private static final double HASH_BUILD_COST = 2.0;
+
+    private final Table left;
+    private final String leftField;
+    private final Table right;
+    private final String rightField;
+    private final int limit;
+    private final Strategy strategy;
+    // INDEX_NESTED_LOOP: true si se recorre left y se busca en right.
+    // HASH_JOIN: true si la tabla hash se construye con right.
+    private final boolean leftDriven;
+    private final String leftPrefix;
+    private final String rightPrefix;
+
+    // Visible en el paquete para poder forzar una estrategia en los tests
+    JoinOperator(Table left, String leftField, Table right, String rightField, int limit,
+                 Strategy strategy, boolean leftDriven) {
+        this.left = left;
+        this.leftField = leftField;
+        this.right = right;
+        this.rightField = rightField;
+        this.limit = limit;
+        this.strategy = strategy;
+        this.leftDriven = leftDriven;
+        boolean selfJoin = left.getName().equals(right.getName());
+        this.leftPrefix = (selfJoin ? "left" : left.getName()) + ".";
+        this.rightPrefix = (selfJoin ? "right" : right.getName()) + ".";
+    }
+
+    // Elige la estrategia de menor coste estimado según los índices
+    // disponibles y el tamaño de cada tabla. limit <= 0 significa sin límite.
+    // Con límite se supone ~1 coincidencia por fila recorrida, así que solo se
+    // cuentan las primeras filas del recorrido; la tabla hash se construye entera.
+    public static JoinOperator plan(Table left, String leftField, Table right, String rightField, int limit) {
+        int l = left.size();
+        int r = right.size();
+
+        Strategy best = Strategy.HASH_JOIN;
+        boolean bestLeftDriven = l >= r;
+        double bestCost = HASH_BUILD_COST * Math.min(l, r) + scanned(Math.max(l, r), limit);
+
+        if (right.hasIndex(rightField)) {
+            double cost = scanned(l, limit) * probeCost(r);
+            if (cost < bestCost) {
+                best = Strategy.INDEX_NESTED_LOOP;
+                bestLeftDriven = true;
+                bestCost = cost;
+            }
+        }
+        if (left.hasIndex(leftField)) {
+            double cost = scanned(r, limit) * probeCost(l);
+            if (cost < bestCost) {
+                best = Strategy.INDEX_NESTED_LOOP;
+                bestLeftDriven = false;
+                bestCost = cost;
+            }
+        }
+
+        return new JoinOperator(left, leftField, right, rightField, limit, best, bestLeftDriven);
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    @Override
+    public Iterator<Record> iterator() {
+        Table outer = leftDriven ? left : right;
+        String outerField = leftDriven ? leftField : rightField;
+        Table inner = leftDriven ? right : left;
+        String innerField = leftDriven ? rightField : leftField;
+
+        if (strategy == Strategy.INDEX_NESTED_LOOP) {
+            return new JoinIterator(outer.scan(), outerField) {
+                @Override
+                protected List<Record> matches(Object value) {
+                    return inner.lookup(innerField, value);
+                }
+            };
+        }
+
+        // HASH_JOIN: outer es la tabla que se recorre, inner la que se construye
+        Map<IndexKey, List<Record>> hashTable = new HashMap<>();
+        Iterator<Record> build = inner.scan();
+        while (build.hasNext()) {
+            Record record = build.next();
+            IndexKey key = IndexKey.of(record.getField(innerField));
+            if (key != null) hashTable.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+        }
+        return new JoinIterator(outer.scan(), outerField) {
+            @Override
+            protected List<Record> matches(Object value) {
+                List<Record> found = hashTable.get(IndexKey.of(value));
+                return found == null ? Collections.<Record>emptyList() : found;
+            }
+        };
+    }
+
+    // Recorre la tabla exterior y empareja cada fila con sus coincidencias
+    private abstract class JoinIterator implements Iterator<Record> {
+        private final Iterator<Record> outer;
+        private final String outerField;
+        private Record current;
+        private Iterator<Record> pending = Collections.emptyIterator();
+        private Record next;
+        private int produced;
+
+        JoinIterator(Iterator<Record> outer, String outerField) {
+            this.outer = outer;
+            this.outerField = outerField;
+        }
+
+        protected abstract List<Record> matches(Object value);
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) return true;
+            if (limit > 0 && produced >= limit) return false;
+            while (!pending.hasNext()) {
+                if (!outer.hasNext()) return false;
+                current = outer.next();
+                Object value = current.getField(outerField);
+                if (value != null) pending = matches(value).iterator();
+            }
+            Record match = pending.next();
+            next = leftDriven ? combine(current, match) : combine(match, current);
+            return true;
+        }
+
+        @Override
+        public Record next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Record result = next;
+            next = null;
+            produced++;
+            return result;
+        }
+    }
+
+    private Record combine(Record l, Record r) {
+        Record joined = new Record();
+        for (Map.Entry<String, Object> e : l.getAllFields().entrySet()) {
+            joined.setField(leftPrefix + e.getKey(), e.getValue());
+        }
+        for (Map.Entry<String, Object> e : r.getAllFields().entrySet()) {
+            joined.setField(rightPrefix + e.getKey(), e.getValue());
+        }
+        return joined;
+    }
+
+    private static int scanned(int rows, int limit) {
+        return limit > 0 ? Math.min(rows, limit) : rows;
+    }
+
+    // Comparaciones aproximadas de una búsqueda en un AVL de n claves
+    private static double probeCost(int n) {
+        return Math.log(n + 1) / Math.log(2) + 1;
+    }
+}
@@ -23,6 +23,11 @@ public class Record implements Serializable {
         return new HashMap<>(fields);
     }
 
+    // Acceso directo sin copia para el codificador de TableCodec
+    Map<String, Object> fields() {
+        return fields;
+    }
+
     @Override
     public String toString() {
         return fields.toString();
@@ -1,6 +1,7 @@
 package com.example.demo.service.engine;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.util.*;
 
 // Tabla de la base de datos
@@ -10,12 +11,16 @@ public class Table implements Serializable {
     @SuppressWarnings("rawtypes")
     private Map<String, AVLTree> secondaryIndexes;
     private int nextId;
+    private int recordCount;
+    // Cambios pendientes de escribir a disco (no se persiste)
+    private transient boolean dirty;
 
     public Table(String name) {
         this.name = name;
         this.primaryIndex = new AVLTree<>();
         this.secondaryIndexes = new HashMap<>();
         this.nextId = 1;
+        this.dirty = true;
     }
 
     @SuppressWarnings("unchecked")
@@ -23,19 +28,21 @@ public class Table implements Serializable {
         int id = nextId++;
         record.setField("id", id);
         primaryIndex.insert(id, record);
+        recordCount++;
+        dirty = true;
 
         // Actualizar índices secundarios
         for (Map.Entry<String, AVLTree> entry : secondaryIndexes.entrySet()) {
             String fieldName = entry.getKey();
-            Object value = record.getField(fieldName);
-            if (value instanceof Comparable) {
+            IndexKey key = IndexKey.of(record.getField(fieldName));
+            if (key != null) {
                 AVLTree tree = entry.getValue();
-                List<Integer> ids = (List<Integer>) tree.search((Comparable) value);
+                List<Integer> ids = (List<Integer>) tree.search(key);
                 if (ids == null) {
                     ids = new ArrayList<>();
                 }
                 ids.add(id);
-                tree.insert((Comparable) value, ids);
+                tree.insert(key, ids);
             }
         }
 
@@ -46,6 +53,11 @@ public class Table implements Serializable {
         return primaryIndex.search(id);
     }
 
+    // Recorrido por id sin materializar la tabla completa
+    public Iterator<Record> scan() {
+        return primaryIndex.iterator();
+    }
+
     public List<Record> selectAll() {
         List<Record> results = new ArrayList<>();
         primaryIndex.inOrderTraversal(results);
@@ -58,31 +70,33 @@ public class Table implements Serializable {
         if (oldRecord != null) {
             newRecord.setField("id", id);
             primaryIndex.insert(id, newRecord);
+            dirty = true;
 
             // Actualizar índices secundarios
             for (String fieldName : secondaryIndexes.keySet()) {
-                Object oldValue = oldRecord.getField(fieldName);
-                Object newValue = newRecord.getField(fieldName);
+                IndexKey oldKey = IndexKey.of(oldRecord.getField(fieldName));
+                IndexKey newKey = IndexKey.of(newRecord.getField(fieldName));
+                AVLTree index = secondaryIndexes.get(fieldName);
 
-                if (oldValue instanceof Comparable && newValue instanceof Comparable) {
-                    AVLTree index = secondaryIndexes.get(fieldName);
-
-                    // Remover de índice antiguo
-                    List<Integer> oldIds = (List<Integer>) index.search((Comparable) oldValue);
+                // Remover de índice antiguo
+                if (oldKey != null) {
+                    List<Integer> oldIds = (List<Integer>) index.search(oldKey);
                     if (oldIds != null) {
                         oldIds.remove(Integer.valueOf(id));
                         if (oldIds.isEmpty()) {
-                            index.delete((Comparable) oldValue);
+                            index.delete(oldKey);
                         }
                     }
+                }
 
-                    // Agregar a nuevo índice
-                    List<Integer> newIds = (List<Integer>) index.search((Comparable) newValue);
+                // Agregar a nuevo índice
+                if (newKey != null) {
+                    List<Integer> newIds = (List<Integer>) index.search(newKey);
                     if (newIds == null) {
                         newIds = new ArrayList<>();
                     }
                     newIds.add(id);
-                    index.insert((Comparable) newValue, newIds);
+                    index.insert(newKey, newIds);
                 }
             }
         }
@@ -93,18 +107,20 @@ public class Table implements Serializable {
         Record record = primaryIndex.search(id);
         if (record != null) {
             primaryIndex.delete(id);
+            recordCount--;
+            dirty = true;
 
             // Actualizar índices secundarios
             for (Map.Entry<String, AVLTree> entry : secondaryIndexes.entrySet()) {
                 String fieldName = entry.getKey();
-                Object value = record.getField(fieldName);
-                if (value instanceof Comparable) {
+                IndexKey key = IndexKey.of(record.getField(fieldName));
+                if (key != null) {
                     AVLTree tree = entry.getValue();
-                    List<Integer> ids = (List<Integer>) tree.search((Comparable) value);
+                    List<Integer> ids = (List<Integer>) tree.search(key);
                     if (ids != null) {
                         ids.remove(Integer.valueOf(id));
                         if (ids.isEmpty()) {
-                            tree.delete((Comparable) value);
+                            tree.delete(key);
                         }
                     }
                 }
@@ -120,9 +136,8 @@ public class Table implements Serializable {
             // Construir índice con datos existentes
             List<Record> allRecords = selectAll();
             for (Record record : allRecords) {
-                Object value = record.getField(fieldName);
-                if (value instanceof Comparable) {
-                    Comparable key = (Comparable) value;
+                IndexKey key = IndexKey.of(record.getField(fieldName));
+                if (key != null) {
                     List<Integer> ids = (List<Integer>) index.search(key);
                     if (ids == null) {
                         ids = new ArrayList<>();
@@ -133,16 +148,40 @@ public class Table implements Serializable {
             }
 
             secondaryIndexes.put(fieldName, index);
+            dirty = true;
         }
     }
 
-    @SuppressWarnings("unchecked")
     public List<Record> selectByIndex(String fieldName, Comparable value) {
+        return selectByKey(fieldName, IndexKey.of(value));
+    }
+
+    // Busca por igualdad usando el índice primario ("id") o uno secundario,
+    // con la misma normalización de claves que el hash join (IndexKey)
+    public List<Record> lookup(String fieldName, Object value) {
+        IndexKey key = IndexKey.of(value);
+        if ("id".equals(fieldName)) {
+            List<Record> results = new ArrayList<>();
+            if (key != null && key.value() instanceof BigDecimal) {
+                try {
+                    Record record = primaryIndex.search(((BigDecimal) key.value()).intValueExact());
+                    if (record != null) results.add(record);
+                } catch (ArithmeticException e) {
+                    // no es un entero de 32 bits: no puede ser un id
+                }
+            }
+            return results;
+        }
+        return selectByKey(fieldName, key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Record> selectByKey(String fieldName, IndexKey key) {
         List<Record> results = new ArrayList<>();
         AVLTree index = secondaryIndexes.get(fieldName);
 
-        if (index != null) {
-            List<Integer> ids = (List<Integer>) index.search(value);
+        if (index != null && key != null) {
+            List<Integer> ids = (List<Integer>) index.search(key);
             if (ids != null) {
                 for (Integer id : ids) {
                     Record record = primaryIndex.search(id);
@@ -156,8 +195,43 @@ public class Table implements Serializable {
         return results;
     }
 
+    public boolean hasIndex(String fieldName) {
+        return "id".equals(fieldName) || secondaryIndexes.containsKey(fieldName);
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
     public String getName() {
         return name;
     }
 
+    public int getNextId() {
+        return nextId;
+    }
+
+    public Set<String> getIndexedFields() {
+        return new HashSet<>(secondaryIndexes.keySet());
+    }
+
+    // Usados por TableCodec al cargar: insertan con el id original sin
+    // actualizar índices secundarios (se reconstruyen después)
+    void restore(Record record) {
+        primaryIndex.insert((Integer) record.getField("id"), record);
+        recordCount++;
+    }
+
+    void restoreNextId(int nextId) {
+        this.nextId = nextId;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    void markClean() {
+        dirty = false;
+    }
+
 }
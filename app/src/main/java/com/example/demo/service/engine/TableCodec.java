@@ -0,0 +1,352 @@
+package com.example.demo.service.engine;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+// Formato en disco de tablas y catálogo (reemplaza la serialización Java).
+// Tras una cabecera sin comprimir (magic + versión) todo va en bloques
+// comprimidos con crc32 (ver BlockOutputStream). Los nombres de campo y los
+// strings cortos se codifican con un diccionario que se construye al vuelo:
+// la primera aparición se escribe completa y las siguientes como un índice.
+// Los índices secundarios no se guardan, solo sus campos, y se reconstruyen al cargar.
+public class TableCodec {
+    private static final int TABLE_MAGIC = 0x4D444254; // "MDBT"
+    private static final int CATALOG_MAGIC = 0x4D444243; // "MDBC"
+    private static final int VERSION = 2;
+
+    // Strings más largos no entran al diccionario (suelen ser únicos)
+    private static final int MAX_DICT_STRING = 64;
+    static final int MAX_DICT_ENTRIES = 1 << 16;
+
+    private static final int T_NULL = 0;
+    private static final int T_INT = 1;
+    private static final int T_LONG = 2;
+    private static final int T_DOUBLE = 3;
+    private static final int T_TRUE = 4;
+    private static final int T_FALSE = 5;
+    private static final int T_STRING_REF = 6;
+    private static final int T_STRING_NEW = 7;
+    private static final int T_STRING = 8;
+    private static final int T_LIST = 9;
+    private static final int T_MAP = 10;
+    // Cualquier otro tipo se guarda con serialización Java
+    private static final int T_SERIALIZED = 11;
+
+    private final int level;
+
+    public TableCodec() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    public TableCodec(int level) {
+        this.level = level;
+    }
+
+    public void writeTable(Table table, OutputStream os) throws IOException {
+        writeHeader(os, TABLE_MAGIC);
+        try (Writer w = new Writer(new BlockOutputStream(os, level))) {
+            w.writeName(table.getName());
+            w.writeVarInt(table.getNextId());
+
+            List<String> indexed = new ArrayList<>(table.getIndexedFields());
+            w.writeVarInt(indexed.size());
+            for (String field : indexed) w.writeName(field);
+
+            w.writeVarInt(table.size());
+            Iterator<Record> it = table.scan();
+            while (it.hasNext()) {
+                Map<String, Object> fields = it.next().fields();
+                w.writeVarInt(fields.size());
+                for (Map.Entry<String, Object> e : fields.entrySet()) {
+                    w.writeName(e.getKey());
+                    w.writeValue(e.getValue());
+                }
+            }
+        }
+    }
+
+    public Table readTable(InputStream is) throws IOException {
+        readHeader(is, TABLE_MAGIC);
+        try (Reader r = new Reader(new BlockInputStream(is))) {
+            Table table = new Table(r.readName());
+            int nextId = r.readVarInt();
+
+            int indexCount = r.readVarInt();
+            List<String> indexed = new ArrayList<>(indexCount);
+            for (int i = 0; i < indexCount; i++) indexed.add(r.readName());
+
+            int count = r.readVarInt();
+            for (int i = 0; i < count; i++) {
+                Record record = new Record();
+                int fieldCount = r.readVarInt();
+                for (int f = 0; f < fieldCount; f++) {
+                    String name = r.readName();
+                    record.setField(name, r.readValue());
+                }
+                table.restore(record);
+            }
+            table.restoreNextId(nextId);
+
+            for (String field : indexed) table.createIndex(field);
+            table.markClean();
+            return table;
+        }
+    }
+
+    public void writeCatalog(List<String> tableNames, OutputStream os) throws IOException {
+        writeHeader(os, CATALOG_MAGIC);
+        try (Writer w = new Writer(new BlockOutputStream(os, level))) {
+            w.writeVarInt(tableNames.size());
+            for (String name : tableNames) w.writeString(name);
+        }
+    }
+
+    public List<String> readCatalog(InputStream is) throws IOException {
+        readHeader(is, CATALOG_MAGIC);
+        try (Reader r = new Reader(new BlockInputStream(is))) {
+            int count = r.readVarInt();
+            List<String> names = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) names.add(r.readString());
+            return names;
+        }
+    }
+
+    private static void writeHeader(OutputStream os, int magic) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(magic);
+        out.writeByte(VERSION);
+        out.flush();
+    }
+
+    private static void readHeader(InputStream is, int magic) throws IOException {
+        DataInputStream in = new DataInputStream(is);
+        if (in.readInt() != magic) throw new IOException("Formato de archivo desconocido");
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("Versión de archivo no soportada: " + version);
+    }
+
+    private static class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final Map<String, Integer> dictionary = new HashMap<>();
+
+        Writer(OutputStream os) {
+            this.out = new DataOutputStream(os);
+        }
+
+        // 0 = nombre nuevo (sigue el texto), k > 0 = entrada k - 1 del diccionario
+        void writeName(String name) throws IOException {
+            Integer ref = dictionary.get(name);
+            if (ref != null) {
+                writeVarInt(ref + 1);
+            } else {
+                writeVarInt(0);
+                writeString(name);
+                if (dictionary.size() < MAX_DICT_ENTRIES) dictionary.put(name, dictionary.size());
+            }
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(T_NULL);
+            } else if (value instanceof Integer) {
+                out.writeByte(T_INT);
+                writeVarLong(zigZag((Integer) value));
+            } else if (value instanceof Long) {
+                out.writeByte(T_LONG);
+                writeVarLong(zigZag((Long) value));
+            } else if (value instanceof Double) {
+                out.writeByte(T_DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte((Boolean) value ? T_TRUE : T_FALSE);
+            } else if (value instanceof String) {
+                writeStringValue((String) value);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                out.writeByte(T_LIST);
+                writeVarInt(list.size());
+                for (Object item : list) writeValue(item);
+            } else if (value instanceof Map && hasStringKeys((Map<?, ?>) value)) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeByte(T_MAP);
+                writeVarInt(map.size());
+                for (Map.Entry<?, ?> e : map.entrySet()) {
+                    writeName((String) e.getKey());
+                    writeValue(e.getValue());
+                }
+            } else {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                    oos.writeObject(value);
+                }
+                out.writeByte(T_SERIALIZED);
+                writeVarInt(bytes.size());
+                bytes.writeTo(out);
+            }
+        }
+
+        private void writeStringValue(String s) throws IOException {
+            Integer ref = dictionary.get(s);
+            if (ref != null) {
+                out.writeByte(T_STRING_REF);
+                writeVarInt(ref);
+            } else if (s.length() <= MAX_DICT_STRING && dictionary.size() < MAX_DICT_ENTRIES) {
+                out.writeByte(T_STRING_NEW);
+                writeString(s);
+                dictionary.put(s, dictionary.size());
+            } else {
+                out.writeByte(T_STRING);
+                writeString(s);
+            }
+        }
+
+        void writeString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+
+        void writeVarInt(int v) throws IOException {
+            writeVarLong(v & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long v) throws IOException {
+            while ((v & ~0x7FL) != 0) {
+                out.writeByte((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.writeByte((int) v);
+        }
+
+        private static long zigZag(long v) {
+            return (v << 1) ^ (v >> 63);
+        }
+
+        private static boolean hasStringKeys(Map<?, ?> map) {
+            for (Object key : map.keySet()) {
+                if (!(key instanceof String)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    private static class Reader implements Closeable {
+        private final DataInputStream in;
+        private final List<String> dictionary = new ArrayList<>();
+
+        Reader(InputStream is) {
+            this.in = new DataInputStream(is);
+        }
+
+        String readName() throws IOException {
+            int ref = readVarInt();
+            if (ref > 0) return dictEntry(ref - 1);
+            String name = readString();
+            if (dictionary.size() < MAX_DICT_ENTRIES) dictionary.add(name);
+            return name;
+        }
+
+        Object readValue() throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case T_NULL:
+                    return null;
+                case T_INT:
+                    return (int) unZigZag(readVarLong());
+                case T_LONG:
+                    return unZigZag(readVarLong());
+                case T_DOUBLE:
+                    return in.readDouble();
+                case T_TRUE:
+                    return Boolean.TRUE;
+                case T_FALSE:
+                    return Boolean.FALSE;
+                case T_STRING_REF:
+                    return dictEntry(readVarInt());
+                case T_STRING_NEW: {
+                    String s = readString();
+                    dictionary.add(s);
+                    return s;
+                }
+                case T_STRING:
+                    return readString();
+                case T_LIST: {
+                    int size = readVarInt();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) list.add(readValue());
+                    return list;
+                }
+                case T_MAP: {
+                    int size = readVarInt();
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        String key = readName();
+                        map.put(key, readValue());
+                    }
+                    return map;
+                }
+                case T_SERIALIZED: {
+                    byte[] bytes = new byte[readVarInt()];
+                    in.readFully(bytes);
+                    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                        return ois.readObject();
+                    } catch (ClassNotFoundException e) {
+                        throw new IOException("Clase no encontrada: " + e.getMessage());
+                    }
+                }
+                default:
+                    throw new IOException("Tipo de valor desconocido: " + tag);
+            }
+        }
+
+        private String dictEntry(int ref) throws IOException {
+            if (ref < 0 || ref >= dictionary.size()) {
+                throw new IOException("Referencia de diccionario inválida: " + ref);
+            }
+            return dictionary.get(ref);
+        }
+
+        String readString() throws IOException {
+            byte[] bytes = new byte[readVarInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int readVarInt() throws IOException {
+            long v = readVarLong();
+            if (v < 0 || v > 0xFFFFFFFFL) throw new IOException("Entero fuera de rango");
+            return (int) v;
+        }
+
+        long readVarLong() throws IOException {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IOException("Entero variable demasiado largo");
+        }
+
+        private static long unZigZag(long v) {
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
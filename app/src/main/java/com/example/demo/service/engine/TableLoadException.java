@@ -0,0 +1,8 @@
+package com.example.demo.service.engine;
+
+// La tabla está en el catálogo pero su archivo no se pudo leer (corrupto o incompleto)
+public class TableLoadException extends RuntimeException {
+    public TableLoadException(String tableName, Throwable cause) {
+        super("No se pudo cargar la tabla '" + tableName + "': " + cause, cause);
+    }
+}
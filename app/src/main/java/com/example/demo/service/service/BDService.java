@@ -1,21 +1,30 @@
 package com.example.demo.service.service;
 
 import com.example.demo.service.engine.DataBaseEngine;
+import com.example.demo.service.engine.JoinOperator;
 import com.example.demo.service.engine.Record;
 import com.example.demo.service.engine.Table;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 @Service
 public class BDService {
 
+    // Las tablas pueden descargarse de memoria, así que todo uso de una Table
+    // se hace dentro de synchronized (engine) y sin guardar la referencia.
     private DataBaseEngine engine;
     private final String DB_PATH = "mibasedatos.db";
+    // Tope de filas por join: el resultado se arma con el lock del motor tomado
+    private static final int MAX_JOIN_ROWS = 10_000;
 
-    public BDService() {
+    public BDService(@Value("${db.max-loaded-tables:32}") int maxLoadedTables) {
         this.engine = DataBaseEngine.load(DB_PATH);
+        this.engine.setMaxLoadedTables(maxLoadedTables);
         // register shutdown hook to save DB on exit
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             if (this.engine != null) this.engine.save();
@@ -31,60 +40,72 @@ public class BDService {
     }
 
     public List<Map<String, Object>> getAllRecords(String tableName) {
-        Table t = engine.getTable(tableName);
-        if (t == null) return null;
-        List<Record> recs = t.selectAll();
-        List<Map<String, Object>> out = new ArrayList<>();
-        for (Record r : recs) out.add(r.getAllFields());
-        return out;
+        synchronized (engine) {
+            Table t = engine.getTable(tableName);
+            if (t == null) return null;
+            List<Record> recs = t.selectAll();
+            List<Map<String, Object>> out = new ArrayList<>();
+            for (Record r : recs) out.add(r.getAllFields());
+            return out;
+        }
     }
 
     public Map<String, Object> getRecord(String tableName, int id) {
-        Table t = engine.getTable(tableName);
-        if (t == null) return null;
-        Record r = t.select(id);
-        return r == null ? null : r.getAllFields();
+        synchronized (engine) {
+            Table t = engine.getTable(tableName);
+            if (t == null) return null;
+            Record r = t.select(id);
+            return r == null ? null : r.getAllFields();
+        }
     }
 
     public Integer insertRecord(String tableName, Map<String, Object> data) {
-        Table t = engine.getTable(tableName);
-        if (t == null) return null;
-        Record r = new Record();
-        for (Map.Entry<String, Object> e : data.entrySet()) {
-            if ("id".equals(e.getKey())) continue;
-            r.setField(e.getKey(), e.getValue());
+        synchronized (engine) {
+            Table t = engine.getTable(tableName);
+            if (t == null) return null;
+            Record r = new Record();
+            for (Map.Entry<String, Object> e : data.entrySet()) {
+                if ("id".equals(e.getKey())) continue;
+                r.setField(e.getKey(), e.getValue());
+            }
+            return t.insert(r);
         }
-        return t.insert(r);
     }
 
     public boolean updateRecord(String tableName, int id, Map<String, Object> data) {
-        Table t = engine.getTable(tableName);
-        if (t == null) return false;
-        Record existing = t.select(id);
-        if (existing == null) return false;
-        Record nr = new Record();
-        for (Map.Entry<String, Object> e : data.entrySet()) {
-            if ("id".equals(e.getKey())) continue;
-            nr.setField(e.getKey(), e.getValue());
+        synchronized (engine) {
+            Table t = engine.getTable(tableName);
+            if (t == null) return false;
+            Record existing = t.select(id);
+            if (existing == null) return false;
+            Record nr = new Record();
+            for (Map.Entry<String, Object> e : data.entrySet()) {
+                if ("id".equals(e.getKey())) continue;
+                nr.setField(e.getKey(), e.getValue());
+            }
+            t.update(id, nr);
+            return true;
         }
-        t.update(id, nr);
-        return true;
     }
 
     public boolean deleteRecord(String tableName, int id) {
-        Table t = engine.getTable(tableName);
-        if (t == null) return false;
-        Record existing = t.select(id);
-        if (existing == null) return false;
-        t.delete(id);
-        return true;
+        synchronized (engine) {
+            Table t = engine.getTable(tableName);
+            if (t == null) return false;
+            Record existing = t.select(id);
+            if (existing == null) return false;
+            t.delete(id);
+            return true;
+        }
     }
 
     public boolean createIndex(String tableName, String field) {
-        Table t = engine.getTable(tableName);
-        if (t == null) return false;
-        t.createIndex(field);
-        return true;
+        synchronized (engine) {
+            Table t = engine.getTable(tableName);
+            if (t == null) return false;
+            t.createIndex(field);
+            return true;
+        }
     }
 
     public boolean deleteTable(String tableName) {
@@ -93,13 +114,34 @@ public class BDService {
     }
 
     public List<Map<String, Object>> selectByIndex(String tableName, String field, String value) {
-        Table t = engine.getTable(tableName);
-        if (t == null) return null;
-        Comparable comp = parseComparable(value);
-        List<Record> recs = t.selectByIndex(field, comp);
-        List<Map<String, Object>> out = new ArrayList<>();
-        for (Record r : recs) out.add(r.getAllFields());
-        return out;
+        synchronized (engine) {
+            Table t = engine.getTable(tableName);
+            if (t == null) return null;
+            Comparable comp = parseComparable(value);
+            List<Record> recs = t.selectByIndex(field, comp);
+            List<Map<String, Object>> out = new ArrayList<>();
+            for (Record r : recs) out.add(r.getAllFields());
+            return out;
+        }
+    }
+
+    public Map<String, Object> join(String leftTable, String leftField, String rightTable, String rightField, int limit) {
+        synchronized (engine) {
+            Table l = engine.getTable(leftTable);
+            Table r = engine.getTable(rightTable);
+            if (l == null || r == null) return null;
+            // Se pide una fila más de las que se devuelven para saber si hay más
+            int max = Math.min(limit, MAX_JOIN_ROWS);
+            JoinOperator join = JoinOperator.plan(l, leftField, r, rightField, max + 1);
+            List<Map<String, Object>> rows = new ArrayList<>();
+            Iterator<Record> it = join.iterator();
+            while (rows.size() < max && it.hasNext()) rows.add(it.next().getAllFields());
+            Map<String, Object> out = new LinkedHashMap<>();
+            out.put("strategy", join.getStrategy().name());
+            out.put("rows", rows);
+            out.put("truncated", it.hasNext());
+            return out;
+        }
     }
 
     private Comparable<?> parseComparable(String v) {
@@ -0,0 +1,144 @@
+package com.example.demo.service.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataBaseEngineTest {
+
+    @TempDir
+    Path dir;
+
+    private String dbPath() {
+        return dir.resolve("test.db").toString();
+    }
+
+    private File tableFile(String name) {
+        return new File(dbPath() + ".tables", name + ".tbl");
+    }
+
+    private static Record record(String field, Object value) {
+        Record r = new Record();
+        r.setField(field, value);
+        return r;
+    }
+
+    @Test
+    void loadReadsOnlyCatalogAndTablesOnFirstUse() {
+        DataBaseEngine engine = DataBaseEngine.load(dbPath());
+        engine.createTable("a");
+        engine.createTable("b");
+        engine.getTable("a").insert(record("x", 1));
+        engine.getTable("b").insert(record("x", 2));
+        engine.save();
+
+        DataBaseEngine reloaded = DataBaseEngine.load(dbPath());
+        assertEquals(List.of("a", "b"), reloaded.getTableNames());
+        assertFalse(reloaded.isLoaded("a"));
+        assertFalse(reloaded.isLoaded("b"));
+
+        assertEquals(1, reloaded.getTable("a").select(1).getField("x"));
+        assertTrue(reloaded.isLoaded("a"));
+        assertFalse(reloaded.isLoaded("b"));
+        assertNull(reloaded.getTable("missing"));
+    }
+
+    @Test
+    void evictionWritesDirtyTablesBeforeUnloading() {
+        DataBaseEngine engine = DataBaseEngine.load(dbPath());
+        engine.setMaxLoadedTables(1);
+        engine.createTable("a");
+        engine.getTable("a").insert(record("x", "guardado"));
+
+        engine.createTable("b");
+        assertFalse(engine.isLoaded("a"));
+        assertTrue(tableFile("a").exists());
+
+        assertEquals("guardado", engine.getTable("a").select(1).getField("x"));
+        assertFalse(engine.isLoaded("b"));
+    }
+
+    @Test
+    void saveWritesOnlyDirtyTables() {
+        DataBaseEngine engine = DataBaseEngine.load(dbPath());
+        engine.createTable("a");
+        engine.createTable("b");
+        engine.save();
+        assertTrue(tableFile("a").delete());
+
+        engine.getTable("b").insert(record("x", 1));
+        engine.save();
+
+        assertFalse(tableFile("a").exists());
+        assertTrue(tableFile("b").exists());
+    }
+
+    @Test
+    void droppedTableFileIsDeletedOnlyAfterCatalogIsSaved() {
+        DataBaseEngine engine = DataBaseEngine.load(dbPath());
+        engine.createTable("a");
+        engine.getTable("a").insert(record("x", 1));
+        engine.save();
+
+        engine.dropTable("a");
+        assertTrue(tableFile("a").exists());
+        // Simula una caída antes del checkpoint: la tabla sigue con sus datos
+        assertEquals(1, DataBaseEngine.load(dbPath()).getTable("a").size());
+
+        engine.save();
+        assertFalse(tableFile("a").exists());
+        assertTrue(DataBaseEngine.load(dbPath()).getTableNames().isEmpty());
+    }
+
+    @Test
+    void recreatingDroppedTableKeepsNewData() {
+        DataBaseEngine engine = DataBaseEngine.load(dbPath());
+        engine.createTable("a");
+        engine.getTable("a").insert(record("x", "viejo"));
+        engine.save();
+
+        engine.dropTable("a");
+        engine.createTable("a");
+        engine.getTable("a").insert(record("x", "nuevo"));
+        engine.save();
+
+        assertEquals("nuevo", DataBaseEngine.load(dbPath()).getTable("a").select(1).getField("x"));
+    }
+
+    @Test
+    void corruptTableFileIsReportedNotHidden() throws IOException {
+        DataBaseEngine engine = DataBaseEngine.load(dbPath());
+        engine.createTable("a");
+        engine.getTable("a").insert(record("x", 1));
+        engine.save();
+        Files.write(tableFile("a").toPath(), new byte[] {1, 2, 3});
+
+        DataBaseEngine reloaded = DataBaseEngine.load(dbPath());
+        assertThrows(TableLoadException.class, () -> reloaded.getTable("a"));
+        assertEquals(List.of("a"), reloaded.getTableNames());
+    }
+
+    @Test
+    void corruptCatalogFailsLoadInsteadOfStartingEmpty() throws IOException {
+        DataBaseEngine engine = DataBaseEngine.load(dbPath());
+        engine.createTable("a");
+        engine.getTable("a").insert(record("x", 1));
+        engine.save();
+
+        Path catalog = Path.of(dbPath());
+        byte[] data = Files.readAllBytes(catalog);
+        data[data.length - 1] ^= 0x01;
+        Files.write(catalog, data);
+
+        assertThrows(UncheckedIOException.class, () -> DataBaseEngine.load(dbPath()));
+        assertTrue(tableFile("a").exists());
+    }
+}
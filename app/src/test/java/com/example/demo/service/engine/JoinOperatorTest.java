@@ -0,0 +1,187 @@
+package com.example.demo.service.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JoinOperatorTest {
+
+    private static Record record(Object... fieldsAndValues) {
+        Record r = new Record();
+        for (int i = 0; i < fieldsAndValues.length; i += 2) {
+            r.setField((String) fieldsAndValues[i], fieldsAndValues[i + 1]);
+        }
+        return r;
+    }
+
+    private static Table customers(int count) {
+        Table t = new Table("clientes");
+        for (int i = 1; i <= count; i++) t.insert(record("k", i, "nombre", "c" + i));
+        return t;
+    }
+
+    // Filas ordenadas y con campos ordenados, para comparar sin depender del orden
+    private static List<String> rows(JoinOperator join) {
+        List<String> out = new ArrayList<>();
+        for (Record r : join) out.add(new TreeMap<>(r.getAllFields()).toString());
+        Collections.sort(out);
+        return out;
+    }
+
+    @Test
+    void allStrategiesReturnSameRowsForMixedNumericTypes() {
+        Table customers = customers(10);
+        customers.insert(record("k", 3L, "nombre", "otro3"));
+        customers.createIndex("k");
+
+        Table orders = new Table("pedidos");
+        orders.insert(record("cid", 1));
+        orders.insert(record("cid", 1));
+        orders.insert(record("cid", 2L));
+        orders.insert(record("cid", 3.0));
+        orders.insert(record("cid", 4.5));
+        orders.insert(record("cid", new BigInteger("6")));
+        orders.insert(record("cid", null));
+        orders.insert(record("cid", 99));
+        orders.createIndex("cid");
+
+        // Actualizaciones que pasan de valor a null y de null a valor
+        customers.insert(record("k", null, "nombre", "sinK"));
+        customers.update(1, record("nombre", "c1"));
+        customers.update(12, record("k", 5, "nombre", "ahora5"));
+        orders.update(7, record("cid", 2));
+        assertTrue(customers.selectByIndex("k", 1).isEmpty());
+        assertEquals(2, customers.selectByIndex("k", 5).size());
+
+        assertSameRowsForEveryStrategy(orders, "cid", customers, "id");
+        assertSameRowsForEveryStrategy(orders, "cid", customers, "k");
+
+        // Contra id: 1, 1, 2L, 2, 3.0 y 6. Contra k: 2L, 2, 3.0 = 3 y 3L, 6
+        assertEquals(6, rows(JoinOperator.plan(orders, "cid", customers, "id", 0)).size());
+        assertEquals(5, rows(JoinOperator.plan(orders, "cid", customers, "k", 0)).size());
+    }
+
+    private static void assertSameRowsForEveryStrategy(Table left, String leftField, Table right, String rightField) {
+        List<String> expected = rows(new JoinOperator(left, leftField, right, rightField, 0,
+                JoinOperator.Strategy.HASH_JOIN, true));
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, rows(new JoinOperator(left, leftField, right, rightField, 0,
+                JoinOperator.Strategy.HASH_JOIN, false)), rightField);
+        assertEquals(expected, rows(new JoinOperator(left, leftField, right, rightField, 0,
+                JoinOperator.Strategy.INDEX_NESTED_LOOP, true)), rightField);
+        assertEquals(expected, rows(new JoinOperator(left, leftField, right, rightField, 0,
+                JoinOperator.Strategy.INDEX_NESTED_LOOP, false)), rightField);
+    }
+
+    @Test
+    void textAndNumbersShareAnIndexButNeverMatch() {
+        Table customers = customers(5);
+        customers.createIndex("k");
+        // Texto en un índice con claves numéricas: se indexa sin error
+        customers.insert(record("k", "abc", "nombre", "texto"));
+        customers.update(2, record("k", "2", "nombre", "c2"));
+        assertEquals(1, customers.selectByIndex("k", "abc").size());
+        assertTrue(customers.selectByIndex("k", 2).isEmpty());
+
+        Table orders = new Table("pedidos");
+        orders.insert(record("cid", "1"));
+        orders.insert(record("cid", "abc"));
+        orders.insert(record("cid", 2));
+        orders.insert(record("cid", 3));
+        orders.createIndex("cid");
+
+        assertSameRowsForEveryStrategy(orders, "cid", customers, "k");
+        // Solo "abc" = "abc" y 3 = 3
+        assertEquals(2, rows(JoinOperator.plan(orders, "cid", customers, "k", 0)).size());
+    }
+
+    @Test
+    void plannerUsesIndexWhenOuterIsSmall() {
+        Table customers = customers(10_000);
+        Table orders = new Table("pedidos");
+        for (int i = 0; i < 10; i++) orders.insert(record("cid", i * 100 + 1));
+
+        JoinOperator byId = JoinOperator.plan(orders, "cid", customers, "id", 0);
+        assertEquals(JoinOperator.Strategy.INDEX_NESTED_LOOP, byId.getStrategy());
+        assertEquals(10, rows(byId).size());
+
+        // Sin índice en ningún lado solo queda el hash join
+        assertEquals(JoinOperator.Strategy.HASH_JOIN,
+                JoinOperator.plan(orders, "cid", customers, "k", 0).getStrategy());
+
+        // Con el índice solo a la izquierda se recorre la tabla derecha
+        JoinOperator reversed = JoinOperator.plan(customers, "id", orders, "cid", 0);
+        assertEquals(JoinOperator.Strategy.INDEX_NESTED_LOOP, reversed.getStrategy());
+        assertEquals(10, rows(reversed).size());
+    }
+
+    @Test
+    void plannerUsesHashJoinForSimilarSizes() {
+        Table left = customers(1_000);
+        Table right = customers(1_000);
+        right.createIndex("k");
+        assertEquals(JoinOperator.Strategy.HASH_JOIN, JoinOperator.plan(left, "k", right, "k", 0).getStrategy());
+    }
+
+    @Test
+    void limitStopsIteration() {
+        Table customers = customers(100);
+        Table orders = new Table("pedidos");
+        for (int i = 1; i <= 100; i++) orders.insert(record("cid", i));
+
+        for (JoinOperator.Strategy strategy : JoinOperator.Strategy.values()) {
+            JoinOperator join = new JoinOperator(orders, "cid", customers, "id", 3, strategy, true);
+            assertEquals(3, rows(join).size());
+        }
+    }
+
+    @Test
+    void iteratorFollowsIteratorContract() {
+        Table customers = customers(2);
+        Table orders = new Table("pedidos");
+        orders.insert(record("cid", 1));
+        orders.insert(record("cid", 2));
+        orders.insert(record("cid", 2));
+
+        Iterator<Record> it = JoinOperator.plan(orders, "cid", customers, "id", 0).iterator();
+        assertTrue(it.hasNext());
+        assertTrue(it.hasNext());
+        assertEquals(1, it.next().getField("pedidos.cid"));
+        assertEquals(2, it.next().getField("pedidos.cid"));
+        assertEquals(2, it.next().getField("pedidos.cid"));
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, it::next);
+    }
+
+    @Test
+    void selfJoinUsesLeftAndRightPrefixes() {
+        Table people = new Table("personas");
+        people.insert(record("nombre", "Ana", "jefe", null));
+        people.insert(record("nombre", "Luis", "jefe", 1));
+
+        List<Record> result = new ArrayList<>();
+        for (Record r : JoinOperator.plan(people, "jefe", people, "id", 0)) result.add(r);
+
+        assertEquals(1, result.size());
+        assertEquals("Luis", result.get(0).getField("left.nombre"));
+        assertEquals("Ana", result.get(0).getField("right.nombre"));
+    }
+
+    @Test
+    void lookupByIdComparesNumbersByValue() {
+        Table customers = customers(3);
+        assertEquals(1, customers.lookup("id", 1.0).size());
+        assertEquals(1, customers.lookup("id", 2L).size());
+        assertTrue(customers.lookup("id", 1.5).isEmpty());
+        assertTrue(customers.lookup("id", 1L << 40).isEmpty());
+        assertTrue(customers.lookup("id", "1").isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.demo.service.engine;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+// Compara el tamaño y el tiempo de guardado/carga de una tabla con
+// serialización Java frente a TableCodec. No es un test: se ejecuta a mano.
+//   java -cp target/classes:target/test-classes com.example.demo.service.engine.PersistenceBenchmark [registros]
+public class PersistenceBenchmark {
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Table table = sampleTable(records);
+        File dir = new File(System.getProperty("java.io.tmpdir"));
+
+        System.out.printf("Tabla de %d registros%n", records);
+        System.out.printf("%-24s %12s %8s %10s %10s%n", "formato", "bytes", "ratio", "save ms", "load ms");
+
+        long javaSize = run("serialización Java", new File(dir, "bench-java.tbl"), 0,
+                os -> {
+                    ObjectOutputStream oos = new ObjectOutputStream(os);
+                    oos.writeObject(table);
+                    oos.flush();
+                },
+                is -> new ObjectInputStream(is).readObject());
+
+        for (int level : new int[] {Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION}) {
+            TableCodec codec = new TableCodec(level);
+            run("TableCodec nivel " + level, new File(dir, "bench-codec.tbl"), javaSize,
+                    os -> codec.writeTable(table, os),
+                    is -> codec.readTable(is));
+        }
+    }
+
+    private static long run(String name, File file, long baseline, Save save, Load load) throws Exception {
+        long[] saveTimes = new long[RUNS];
+        long[] loadTimes = new long[RUNS];
+        // Una vuelta extra de calentamiento que no se cuenta
+        for (int i = -1; i < RUNS; i++) {
+            long t0 = System.nanoTime();
+            try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+                save.save(os);
+            }
+            long t1 = System.nanoTime();
+            try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+                load.load(is);
+            }
+            long t2 = System.nanoTime();
+            if (i >= 0) {
+                saveTimes[i] = t1 - t0;
+                loadTimes[i] = t2 - t1;
+            }
+        }
+        long size = file.length();
+        String ratio = baseline == 0 ? "1.00x" : String.format("%.2fx", (double) baseline / size);
+        System.out.printf("%-24s %12d %8s %10.1f %10.1f%n", name, size, ratio,
+                median(saveTimes) / 1e6, median(loadTimes) / 1e6);
+        file.delete();
+        return size;
+    }
+
+    private static Table sampleTable(int records) {
+        String[] names = {"Ana", "Luis", "María", "Carlos", "Sofía", "Juan", "Lucía", "Pedro", "Elena", "Diego"};
+        String[] cities = {"Bogotá", "Medellín", "Cali", "Barranquilla", "Cartagena", "Bucaramanga", "Pereira"};
+        Random random = new Random(42);
+        Table table = new Table("usuarios");
+        for (int i = 0; i < records; i++) {
+            Record r = new Record();
+            r.setField("nombre", names[random.nextInt(names.length)]);
+            r.setField("ciudad", cities[random.nextInt(cities.length)]);
+            r.setField("edad", 18 + random.nextInt(60));
+            r.setField("email", "usuario" + i + "@correo.com");
+            r.setField("activo", random.nextBoolean());
+            r.setField("saldo", Math.round(random.nextDouble() * 1_000_000) / 100.0);
+            table.insert(r);
+        }
+        // Sin índices secundarios: la serialización Java los guardaría y TableCodec
+        // no, y la comparación mezclaría compresión con datos que no se escriben
+        return table;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private interface Save {
+        void save(OutputStream os) throws Exception;
+    }
+
+    private interface Load {
+        Object load(InputStream is) throws Exception;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.demo.service.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableCodecTest {
+
+    private static byte[] write(TableCodec codec, Table table) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.writeTable(table, out);
+        return out.toByteArray();
+    }
+
+    private static Table roundTrip(Table table) throws IOException {
+        TableCodec codec = new TableCodec();
+        return codec.readTable(new ByteArrayInputStream(write(codec, table)));
+    }
+
+    private static Record record(Object... fieldsAndValues) {
+        Record r = new Record();
+        for (int i = 0; i < fieldsAndValues.length; i += 2) {
+            r.setField((String) fieldsAndValues[i], fieldsAndValues[i + 1]);
+        }
+        return r;
+    }
+
+    @Test
+    void roundTripsEveryValueType() throws IOException {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("calle", "Principal");
+        nested.put("numero", 12);
+        nested.put("extra", null);
+
+        Table table = new Table("tipos");
+        table.insert(record(
+                "entero", -42,
+                "largo", 1L << 40,
+                "doble", 3.25,
+                "verdadero", true,
+                "falso", false,
+                "nulo", null,
+                "corto", "hola",
+                "largoTexto", "x".repeat(200),
+                "lista", Arrays.asList(1, "dos", 3.0, null, List.of(4L)),
+                "mapa", nested,
+                "bigInteger", new BigInteger("123456789012345678901234567890"),
+                "bigDecimal", new BigDecimal("1.50")));
+        // Segunda fila con los mismos strings: se leen del diccionario
+        table.insert(record("corto", "hola", "mapa", nested));
+
+        Table loaded = roundTrip(table);
+
+        assertEquals(table.select(1).getAllFields(), loaded.select(1).getAllFields());
+        assertEquals(table.select(2).getAllFields(), loaded.select(2).getAllFields());
+        assertEquals(Integer.class, loaded.select(1).getField("entero").getClass());
+        assertEquals(Long.class, loaded.select(1).getField("largo").getClass());
+        assertEquals("tipos", loaded.getName());
+        assertFalse(loaded.isDirty());
+    }
+
+    @Test
+    void nextIdSurvivesDeletes() throws IOException {
+        Table table = new Table("t");
+        for (int i = 0; i < 5; i++) table.insert(record("n", i));
+        table.delete(4);
+        table.delete(5);
+
+        Table loaded = roundTrip(table);
+
+        assertEquals(3, loaded.size());
+        assertNull(loaded.select(5));
+        assertEquals(6, loaded.insert(record("n", 99)));
+    }
+
+    @Test
+    void secondaryIndexesAreRebuilt() throws IOException {
+        Table table = new Table("t");
+        table.insert(record("ciudad", "Cali"));
+        table.insert(record("ciudad", "Bogotá"));
+        table.insert(record("ciudad", "Cali"));
+        table.createIndex("ciudad");
+
+        Table loaded = roundTrip(table);
+
+        assertEquals(table.getIndexedFields(), loaded.getIndexedFields());
+        assertEquals(2, loaded.selectByIndex("ciudad", "Cali").size());
+        assertEquals(1, loaded.selectByIndex("ciudad", "Bogotá").size());
+    }
+
+    @Test
+    void roundTripsPastFullDictionary() throws IOException {
+        Table table = new Table("t");
+        int rows = TableCodec.MAX_DICT_ENTRIES + 100;
+        for (int i = 0; i < rows; i++) table.insert(record("valor", "v" + i));
+        // Tras llenarse el diccionario: strings y nombres nuevos van completos siempre
+        for (int i = 0; i < 3; i++) {
+            table.insert(record("campoNuevo", "repetido", "valor", "v0"));
+        }
+
+        Table loaded = roundTrip(table);
+
+        assertEquals(table.size(), loaded.size());
+        assertEquals("v" + (rows - 1), loaded.select(rows).getField("valor"));
+        for (int id = rows + 1; id <= rows + 3; id++) {
+            assertEquals(table.select(id).getAllFields(), loaded.select(id).getAllFields());
+        }
+    }
+
+    @Test
+    void catalogRoundTrips() throws IOException {
+        TableCodec codec = new TableCodec();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.writeCatalog(List.of("usuarios", "pedidos"), out);
+        assertEquals(List.of("usuarios", "pedidos"),
+                codec.readCatalog(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    void corruptedBlockFailsChecksum() throws IOException {
+        Table table = new Table("t");
+        for (int i = 0; i < 100; i++) table.insert(record("n", i));
+        // Sin compresión los bloques se guardan tal cual y el byte alterado llega al crc
+        TableCodec codec = new TableCodec(Deflater.NO_COMPRESSION);
+        byte[] data = write(codec, table);
+        data[data.length - 10] ^= 0x01;
+
+        IOException e = assertThrows(IOException.class,
+                () -> codec.readTable(new ByteArrayInputStream(data)));
+        assertTrue(e.getMessage().contains("Checksum"), e.getMessage());
+    }
+
+    @Test
+    void corruptedBlockHeaderFailsWithoutHugeAllocation() throws IOException {
+        Table table = new Table("t");
+        for (int i = 0; i < 1000; i++) table.insert(record("n", i, "texto", "fila " + i));
+        TableCodec codec = new TableCodec();
+        byte[] data = write(codec, table);
+        // Tras el magic y la versión: tipo (5), tamaño original (6-9), tamaño guardado (10-13)
+        assertEquals(BlockOutputStream.DEFLATED, data[5]);
+
+        byte[] hugeStored = data.clone();
+        ByteBuffer.wrap(hugeStored).putInt(10, 0x7FFFFFF0);
+        IOException e = assertThrows(IOException.class,
+                () -> codec.readTable(new ByteArrayInputStream(hugeStored)));
+        assertTrue(e.getMessage().contains("Cabecera"), e.getMessage());
+
+        byte[] storedMismatch = data.clone();
+        storedMismatch[5] = BlockOutputStream.STORED;
+        assertThrows(IOException.class, () -> codec.readTable(new ByteArrayInputStream(storedMismatch)));
+
+        // Un tamaño original menor pero dentro de los límites lo rechaza el crc
+        byte[] shorterRaw = data.clone();
+        ByteBuffer buffer = ByteBuffer.wrap(shorterRaw);
+        buffer.putInt(6, buffer.getInt(6) - 1);
+        e = assertThrows(IOException.class, () -> codec.readTable(new ByteArrayInputStream(shorterRaw)));
+        assertTrue(e.getMessage().contains("Checksum"), e.getMessage());
+    }
+
+    @Test
+    void truncatedFileFails() throws IOException {
+        Table table = new Table("t");
+        for (int i = 0; i < 1000; i++) table.insert(record("n", i, "texto", "fila " + i));
+        TableCodec codec = new TableCodec();
+        byte[] data = write(codec, table);
+
+        for (int length : new int[] {data.length / 2, data.length - 1, 3}) {
+            byte[] truncated = Arrays.copyOf(data, length);
+            assertThrows(IOException.class, () -> codec.readTable(new ByteArrayInputStream(truncated)));
+        }
+    }
+
+    @Test
+    void rejectsOtherFormats() {
+        TableCodec codec = new TableCodec();
+        byte[] catalog = new byte[] {0x4D, 0x44, 0x42, 0x43, 1};
+        assertThrows(IOException.class, () -> codec.readTable(new ByteArrayInputStream(catalog)));
+    }
+}